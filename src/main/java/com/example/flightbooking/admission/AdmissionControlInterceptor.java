@@ -0,0 +1,151 @@
+package com.example.flightbooking.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of FlightDataController.
+ *
+ * Every request is classified by {@link CostClass} and then has to pass two checks:
+ * - a per-client token bucket for that class, otherwise 429 Too Many Requests. Clients
+ *   are keyed by remote address, never by a header the client can choose freely. Behind
+ *   a load balancer set server.forward-headers-strategy so the remote address is the one
+ *   forwarded by the trusted proxy;
+ * - the class bulkhead (a semaphore shared by all clients). A request may queue for
+ *   up to maxQueueWait for a permit, otherwise 503 Service Unavailable.
+ * Both rejections carry a Retry-After header. Heavy scans can therefore only hold
+ * a few connections, and search traffic is never queued behind them.
+ *
+ * Metrics: flightbooking.admission.queue.wait (timer), flightbooking.admission.rejected
+ * (counter, tagged by reason) and flightbooking.admission.in.flight (gauge), all tagged by class.
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final AdmissionProperties properties;
+    private final Map<CostClass, Semaphore> bulkheads = new EnumMap<>(CostClass.class);
+    private final Map<CostClass, Map<String, TokenBucket>> buckets = new EnumMap<>(CostClass.class);
+    private final Map<CostClass, Timer> queueWaitTimers = new EnumMap<>(CostClass.class);
+    private final Map<CostClass, Counter> rateLimitedCounters = new EnumMap<>(CostClass.class);
+    private final Map<CostClass, Counter> bulkheadFullCounters = new EnumMap<>(CostClass.class);
+
+    public AdmissionControlInterceptor(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (CostClass costClass : CostClass.values()) {
+            AdmissionProperties.Limits limits = properties.limitsFor(costClass);
+            String tag = costClass.name().toLowerCase(Locale.ROOT);
+            Semaphore bulkhead = new Semaphore(limits.getMaxConcurrent(), true);
+
+            bulkheads.put(costClass, bulkhead);
+            buckets.put(costClass, boundedLruMap(properties.getMaxTrackedClients()));
+            queueWaitTimers.put(costClass, Timer.builder("flightbooking.admission.queue.wait")
+                    .description("Time spent waiting for a bulkhead permit")
+                    .tag("class", tag)
+                    .register(meterRegistry));
+            rateLimitedCounters.put(costClass, Counter.builder("flightbooking.admission.rejected")
+                    .tag("class", tag)
+                    .tag("reason", "rate_limited")
+                    .register(meterRegistry));
+            bulkheadFullCounters.put(costClass, Counter.builder("flightbooking.admission.rejected")
+                    .tag("class", tag)
+                    .tag("reason", "bulkhead_full")
+                    .register(meterRegistry));
+            Gauge.builder("flightbooking.admission.in.flight", bulkhead,
+                            b -> limits.getMaxConcurrent() - b.availablePermits())
+                    .tag("class", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        CostClass costClass = CostClass.classify(request.getMethod(), path);
+        AdmissionProperties.Limits limits = properties.limitsFor(costClass);
+
+        // 1. Per-client rate limit
+        long waitNanos = bucketFor(costClass, request.getRemoteAddr()).tryConsume();
+        if (waitNanos > 0) {
+            rateLimitedCounters.get(costClass).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1,
+                    "Rate limit exceeded for " + costClass.name().toLowerCase(Locale.ROOT) + " requests");
+            return false;
+        }
+
+        // 2. Per-class concurrency limit
+        Semaphore bulkhead = bulkheads.get(costClass);
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(limits.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        queueWaitTimers.get(costClass).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            bulkheadFullCounters.get(costClass).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, Math.max(limits.getMaxQueueWait().toSeconds(), 1),
+                    "Too many concurrent " + costClass.name().toLowerCase(Locale.ROOT) + " requests, try again later");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, costClass);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object costClass = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (costClass != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            bulkheads.get((CostClass) costClass).release();
+        }
+    }
+
+    private TokenBucket bucketFor(CostClass costClass, String clientId) {
+        AdmissionProperties.Limits limits = properties.limitsFor(costClass);
+        return buckets.get(costClass).computeIfAbsent(clientId,
+                k -> new TokenBucket(limits.getBurst(), limits.getRequestsPerSecond()));
+    }
+
+    // Access-ordered map that drops the least recently seen client once maxEntries is reached,
+    // so tracking stays O(1) per request and memory stays bounded
+    private static Map<String, TokenBucket> boundedLruMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+}
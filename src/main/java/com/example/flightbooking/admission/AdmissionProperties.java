@@ -0,0 +1,92 @@
+package com.example.flightbooking.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Limits per {@link CostClass}, bound from {@code flightbooking.admission.*} in application.yml.
+ */
+@ConfigurationProperties(prefix = "flightbooking.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound on tracked clients per class, the least recently seen client is dropped first
+    private int maxTrackedClients = 10_000;
+
+    private Map<CostClass, Limits> limits = new EnumMap<>(CostClass.class);
+
+    public static class Limits {
+
+        // Per-client token bucket
+        private double requestsPerSecond = 10;
+        private int burst = 20;
+
+        // Bulkhead shared by all clients
+        private int maxConcurrent = 4;
+        private Duration maxQueueWait = Duration.ZERO;
+
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public Duration getMaxQueueWait() {
+            return maxQueueWait;
+        }
+
+        public void setMaxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxTrackedClients() {
+        return maxTrackedClients;
+    }
+
+    public void setMaxTrackedClients(int maxTrackedClients) {
+        this.maxTrackedClients = maxTrackedClients;
+    }
+
+    public Map<CostClass, Limits> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<CostClass, Limits> limits) {
+        this.limits = limits;
+    }
+
+    public Limits limitsFor(CostClass costClass) {
+        return limits.getOrDefault(costClass, new Limits());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.flightbooking.admission;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * How expensive a /flights endpoint is for the database.
+ *
+ * - SEARCH: indexed lookups that users wait on, must keep low latency.
+ * - STANDARD: everything not listed elsewhere.
+ * - HEAVY: full-table scans.
+ * - BULK_WRITE: writes that touch many rows. Kept apart from HEAVY so they never
+ *   wait behind long exports for the same permit.
+ */
+public enum CostClass {
+    SEARCH,
+    STANDARD,
+    HEAVY,
+    BULK_WRITE;
+
+    private static final List<Rule> RULES = List.of(
+            new Rule("GET", "/flights", HEAVY),
+            new Rule("GET", "/flights/class/{flightClass}", HEAVY),
+            new Rule("GET", "/flights/price/under/{maxPrice}", HEAVY),
+            new Rule("GET", "/flights/duration/under/{maxDuration}", HEAVY),
+            new Rule("GET", "/flights/price-duration", HEAVY),
+            new Rule("DELETE", "/flights/cleanup/expensive/{priceThreshold}", BULK_WRITE),
+            new Rule("PUT", "/flights/update-prices/{airline}", BULK_WRITE),
+            new Rule("POST", "/flights/flights/bulk", BULK_WRITE),
+            new Rule("GET", "/flights/search", SEARCH),
+            new Rule("GET", "/flights/search/advance", SEARCH),
+            new Rule("GET", "/flights/route", SEARCH),
+            new Rule("GET", "/flights/deals", SEARCH),
+            new Rule("GET", "/flights/id/{id}", SEARCH)
+    );
+
+    public static CostClass classify(String method, String path) {
+        PathContainer pathContainer = PathContainer.parsePath(path);
+        for (Rule rule : RULES) {
+            if (rule.method().equals(method) && rule.pattern().matches(pathContainer)) {
+                return rule.costClass();
+            }
+        }
+        return STANDARD;
+    }
+
+    private record Rule(String method, PathPattern pattern, CostClass costClass) {
+        Rule(String method, String pattern, CostClass costClass) {
+            this(method, PathPatternParser.defaultInstance.parse(pattern), costClass);
+        }
+    }
+}
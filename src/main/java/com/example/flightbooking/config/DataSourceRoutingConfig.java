@@ -0,0 +1,52 @@
+package com.example.flightbooking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write split between two Hikari pools.
+ *
+ * - primaryDataSource: spring.datasource (+ spring.datasource.hikari), used for writes.
+ * - replicaDataSource: flightbooking.datasource.replica, used by read-only transactions,
+ *   i.e. {@code @Transactional(readOnly = true)} service methods and the default
+ *   read methods of FlightDataRepository.
+ *
+ * The LazyConnectionDataSourceProxy only takes a physical connection at the first
+ * statement, after the transaction has marked the connection read-only, and picks the
+ * pool at that point. Only active when flightbooking.datasource.replica.jdbc-url is set,
+ * otherwise Spring Boot's single datasource is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "flightbooking.datasource.replica", name = "jdbc-url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("flightbooking.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy routingDataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        routingDataSource.setReadOnlyDataSource(replicaDataSource);
+        return routingDataSource;
+    }
+}
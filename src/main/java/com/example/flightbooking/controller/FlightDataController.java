@@ -1,5 +1,6 @@
 package com.example.flightbooking.controller;
 
+import com.example.flightbooking.dto.PriceCurvePoint;
 import com.example.flightbooking.entity.FlightData;
 import com.example.flightbooking.service.FlightDataService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -238,6 +239,18 @@ public class FlightDataController {
         return ResponseEntity.ok(flights);
     }
 
+    // Price statistics by days_left, served from in-memory aggregates (no table scan)
+    @GetMapping("/analytics/price-curve")
+    public ResponseEntity<List<PriceCurvePoint>> getPriceCurve(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam(required = false) String airline,
+            @RequestParam(required = false) String flightClass,
+            @RequestParam(defaultValue = "7") Integer bucketSize) {
+        List<PriceCurvePoint> curve = flightDataService.getPriceCurve(source, destination, airline, flightClass, bucketSize);
+        return ResponseEntity.ok(curve);
+    }
+
     @GetMapping("/count/airline/{airline}")
     public ResponseEntity<Long> getFlightCountByAirline(@PathVariable String airline) {
         Long count = flightDataService.getFlightCountByAirline(airline);
@@ -259,7 +272,7 @@ public class FlightDataController {
     }
 
     @GetMapping("/count/stops/{stops}")
-    public ResponseEntity<Long> getFlightCountByStops(@PathVariable Integer stops) {
+    public ResponseEntity<Long> getFlightCountByStops(@PathVariable String stops) {
         Long count = flightDataService.getFlightCountByStops(stops);
         return ResponseEntity.ok(count);
     }
@@ -0,0 +1,20 @@
+package com.example.flightbooking.dto;
+
+/**
+ * Closed projection of the columns the price-curve analytics needs,
+ * so rebuilding the index does not load full FlightData entities.
+ */
+public interface FlightPriceView {
+
+    String getSourceCity();
+
+    String getDestinationCity();
+
+    String getAirline();
+
+    String getFlightClass();
+
+    Integer getDaysLeft();
+
+    Double getPrice();
+}
@@ -0,0 +1,20 @@
+package com.example.flightbooking.dto;
+
+/**
+ * Price statistics for one airline / class on a route, for flights whose
+ * days_left falls within [minDaysLeft, maxDaysLeft].
+ */
+public record PriceCurvePoint(
+        String airline,
+        String flightClass,
+        int minDaysLeft,
+        int maxDaysLeft,
+        long count,
+        double minPrice,
+        double avgPrice,
+        double p50Price,
+        double p90Price,
+        double p99Price,
+        double maxPrice
+) {
+}
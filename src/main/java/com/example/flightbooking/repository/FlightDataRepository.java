@@ -1,12 +1,16 @@
 package com.example.flightbooking.repository;
 
+import com.example.flightbooking.dto.FlightPriceView;
 import com.example.flightbooking.entity.FlightData;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -42,7 +46,7 @@ public interface FlightDataRepository extends JpaRepository<FlightData, Long> {
     List<FlightData> findFlightsByDepartureTimeRange(@Param("startTime") String startTime,
                                                      @Param("endTime") String endTime);
 
-    @Query("SELECT f FROM FlightData f WHERE f.stops = 0 ORDER BY f.price ASC")
+    @Query("SELECT f FROM FlightData f WHERE f.stops = 'zero' ORDER BY f.price ASC")
     List<FlightData> findDirectFlightsOrderByPrice();
 
     @Query("SELECT DISTINCT f.airline FROM FlightData f ORDER BY f.airline")
@@ -77,6 +81,41 @@ public interface FlightDataRepository extends JpaRepository<FlightData, Long> {
     List<FlightData> findFlightsByPriceAndDuration(@Param("maxPrice") Double maxPrice,
                                                    @Param("maxDuration") Double maxDuration);
 
+    // Id-range variants used by PartitionedScanExecutor for parallel full-table scans
+    @Query("SELECT MIN(f.id) FROM FlightData f")
+    Long findMinId();
+
+    @Query("SELECT MAX(f.id) FROM FlightData f")
+    Long findMaxId();
+
+    List<FlightData> findByIdBetweenOrderByIdAsc(Long fromId, Long toId);
+
+    List<FlightPriceView> findPriceViewsByIdBetween(Long fromId, Long toId);
+
+    List<FlightData> findByIdBetweenAndPriceLessThanOrderByIdAsc(Long fromId, Long toId, Double maxPrice);
+
+    List<FlightData> findByIdBetweenAndDurationLessThanOrderByIdAsc(Long fromId, Long toId, Double maxDuration);
+
+    @Query("SELECT f FROM FlightData f WHERE f.id BETWEEN :fromId AND :toId AND f.price <= :maxPrice AND f.duration <= :maxDuration ORDER BY f.id")
+    List<FlightData> findFlightsByPriceAndDurationInIdRange(@Param("fromId") Long fromId,
+                                                            @Param("toId") Long toId,
+                                                            @Param("maxPrice") Double maxPrice,
+                                                            @Param("maxDuration") Double maxDuration);
+
+    // Locking reads (SELECT ... FOR UPDATE) for the rows a write is about to overwrite, so the
+    // values read are still the current ones when the transaction commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FlightData f WHERE f.id IN :ids")
+    List<FlightData> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FlightData f WHERE f.airline = :airline")
+    List<FlightData> findByAirlineForUpdate(@Param("airline") String airline);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FlightData f WHERE f.price > :minPrice")
+    List<FlightData> findByPriceGreaterThanForUpdate(@Param("minPrice") Double minPrice);
+
     // 5. Count and Exists Methods
     Long countByAirline(String airline);
 
@@ -86,7 +125,7 @@ public interface FlightDataRepository extends JpaRepository<FlightData, Long> {
 
     Long countByFlightClass(String flightClass);
 
-    Long countByStops(Integer stops);
+    Long countByStops(String stops);
 
     // 6. Delete Methods
 
@@ -1,51 +1,139 @@
 package com.example.flightbooking.service;
 
+import com.example.flightbooking.dto.PriceCurvePoint;
 import com.example.flightbooking.entity.FlightData;
 import com.example.flightbooking.repository.FlightDataRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+// Reads run in read-only transactions so they can be routed to the replica pool
+// (see DataSourceRoutingConfig), write methods override this with @Transactional
 @Service
+@Transactional(readOnly = true)
 public class FlightDataService {
     @Autowired
     private FlightDataRepository flightDataRepository;
 
+    @Autowired
+    private FlightPriceAnalyticsService flightPriceAnalyticsService;
+
+    @Autowired
+    private PartitionedScanExecutor partitionedScanExecutor;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Value("${flightbooking.coalescing.max-deals-limit:100}")
+    private int maxCoalescedDealsLimit;
+
     // Basic CRUD Operations
+    // Writes also keep the price-curve analytics up to date (see FlightPriceAnalyticsService)
+    // and drop coalesced search results (see RequestCoalescer)
+    @Transactional
     public FlightData saveFlight(FlightData flightData) {
-        return flightDataRepository.save(flightData);
+        List<FlightPriceAnalyticsService.Sample> previous = snapshotExisting(List.of(flightData));
+        FlightData saved = flightDataRepository.save(flightData);
+        flightPriceAnalyticsService.recordChange(previous, List.of(saved));
+        requestCoalescer.invalidateAll();
+        return saved;
     }
 
+    @Transactional
     public List<FlightData> saveAllFlights(List<FlightData> flights) {
-        return flightDataRepository.saveAll(flights);
+        List<FlightPriceAnalyticsService.Sample> previous = snapshotExisting(flights);
+        List<FlightData> saved = flightDataRepository.saveAll(flights);
+        flightPriceAnalyticsService.recordChange(previous, saved);
+        requestCoalescer.invalidateAll();
+        return saved;
     }
 
     public Optional<FlightData> getFlightById(Long id) {
         return flightDataRepository.findById(id);
     }
 
+    // Full-table reads are split by Id range and run in parallel, results come back in Id order
     public List<FlightData> getAllFlights() {
-        return flightDataRepository.findAll();
+        return partitionedScanExecutor.scan(flightDataRepository::findByIdBetweenOrderByIdAsc);
     }
 
+    @Transactional
     public void deleteFlightById(Long id) {
+        List<FlightPriceAnalyticsService.Sample> previous =
+                flightPriceAnalyticsService.snapshot(flightDataRepository.findAllByIdForUpdate(List.of(id)));
         flightDataRepository.deleteById(id);
+        flightPriceAnalyticsService.recordChange(previous, List.of());
+        requestCoalescer.invalidateAll();
     }
 
+    @Transactional
     public FlightData updateFlight(FlightData flightData) {
-        return flightDataRepository.save(flightData);
+        return saveFlight(flightData);
+    }
+
+    // Built from the exact values passed to the repository, so only calls that would run the
+    // same query share a result. Length-prefixed, so "a|b" + "c" and "a" + "b|c" never collide.
+    private static String coalescingKey(String query, Object... params) {
+        StringBuilder key = new StringBuilder(query);
+        for (Object param : params) {
+            if (param == null) {
+                key.append("|-");
+            } else {
+                String value = param.toString();
+                key.append('|').append(value.length()).append(':').append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    // Coalesced results outlive the loading request, so they must not hold entities
+    // managed by that request's persistence context.
+    // The copies are plain objects, shared by all callers and never modified.
+    private static List<FlightData> detachedCopies(List<FlightData> flights) {
+        return flights.stream()
+                .map(f -> {
+                    FlightData copy = new FlightData(f.getAirline(), f.getFlight(), f.getSourceCity(),
+                            f.getDepartureTime(), f.getStops(), f.getArrivalTime(), f.getDestinationCity(),
+                            f.getFlightClass(), f.getDuration(), f.getDaysLeft(), f.getPrice());
+                    copy.setId(f.getId());
+                    return copy;
+                })
+                .toList();
+    }
+
+    // Current database values of the flights that are about to be overwritten. The rows stay
+    // locked until commit, so a concurrent write cannot change them between snapshot and save.
+    private List<FlightPriceAnalyticsService.Sample> snapshotExisting(List<FlightData> flights) {
+        List<Long> ids = flights.stream()
+                .map(FlightData::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return flightPriceAnalyticsService.snapshot(flightDataRepository.findAllByIdForUpdate(ids));
     }
 
     // Business Logic Methods
 
+    // Hot search queries are coalesced: identical concurrent calls share one repository call.
+    // The returned list is shared with other requests: read-only, do not modify it or its flights.
+    // No transaction here: RequestCoalescer opens one only around the repository call, so cache
+    // hits and callers waiting for an in-flight call do not hold a pooled connection.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<FlightData> searchBySourceAndDestination(String source, String destination) {
-        return flightDataRepository.findBySourceCityAndDestinationCity(source, destination);
+        return requestCoalescer.get(coalescingKey("route", source, destination),
+                () -> detachedCopies(flightDataRepository.findBySourceCityAndDestinationCity(source, destination)));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<FlightData> searchFlightsByMultipleCriteria(
             String sourceCity,
             String destinationCity,
@@ -54,7 +142,7 @@ public class FlightDataService {
             String stops,
             Double maxDuration
     ) {
-        List<FlightData> flights = flightDataRepository.findBySourceCityAndDestinationCity(sourceCity, destinationCity);
+        List<FlightData> flights = searchBySourceAndDestination(sourceCity, destinationCity);
 
         return flights.stream()
                 .filter(f -> flightClass == null || f.getFlightClass().equalsIgnoreCase(flightClass))
@@ -77,7 +165,8 @@ public class FlightDataService {
     }
 
     public List<FlightData> getFlightsUnderPrice(Double maxPrice) {
-        return flightDataRepository.findByPriceLessThan(maxPrice);
+        return partitionedScanExecutor.scan((fromId, toId) ->
+                flightDataRepository.findByIdBetweenAndPriceLessThanOrderByIdAsc(fromId, toId, maxPrice));
     }
 
     public List<FlightData> getFlightsByPriceRange(Double minPrice, Double maxPrice) {
@@ -85,7 +174,8 @@ public class FlightDataService {
     }
 
     public List<FlightData> getFlightsByDuration(Double maxDuration) {
-        return flightDataRepository.findByDurationLessThan(maxDuration);
+        return partitionedScanExecutor.scan((fromId, toId) ->
+                flightDataRepository.findByIdBetweenAndDurationLessThanOrderByIdAsc(fromId, toId, maxDuration));
     }
 
     public List<FlightData> getFlightsByDepartureTime(String departureTime) {
@@ -96,8 +186,11 @@ public class FlightDataService {
         return flightDataRepository.findByArrivalTime(arrivalTime);
     }
 
+    // Coalesced: shared, read-only result
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<FlightData> getFlightsByRoute(String source, String destination, String flightClass) {
-        return flightDataRepository.findFlightsByRoute(source, destination, flightClass);
+        return requestCoalescer.get(coalescingKey("route-class", source, destination, flightClass),
+                () -> detachedCopies(flightDataRepository.findFlightsByRoute(source, destination, flightClass)));
     }
 
     public List<FlightData> getFlightsByTimeSlot(String startTime, String endTime) {
@@ -124,8 +217,15 @@ public class FlightDataService {
         return flightDataRepository.findAllAirlines();
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<FlightData> getBestDeals(Double maxPrice, Integer maxStops, Integer limit) {
-        return flightDataRepository.findBestDeals(maxPrice, maxStops, limit);
+        // Large result sets are not worth holding in memory for other callers
+        if (limit > maxCoalescedDealsLimit) {
+            return requestCoalescer.getUncoalesced(() -> flightDataRepository.findBestDeals(maxPrice, maxStops, limit));
+        }
+        // Coalesced: shared, read-only result
+        return requestCoalescer.get(coalescingKey("deals", maxPrice, maxStops, limit),
+                () -> detachedCopies(flightDataRepository.findBestDeals(maxPrice, maxStops, limit)));
     }
 
     public List<FlightData> getTop5CheapestFlights() {
@@ -137,13 +237,23 @@ public class FlightDataService {
     }
 
     public List<FlightData> getFlightsByPriceAndDuration(Double maxPrice, Double maxDuration) {
-        return flightDataRepository.findFlightsByPriceAndDuration(maxPrice, maxDuration);
+        return partitionedScanExecutor.scan((fromId, toId) ->
+                flightDataRepository.findFlightsByPriceAndDurationInIdRange(fromId, toId, maxPrice, maxDuration));
     }
 
     public List<FlightData> getFlightsByDaysLeftAndClasses(Integer minDays, Integer maxDays, List<String> classes) {
         return flightDataRepository.findFlightsByDaysLeftAndClasses(minDays, maxDays, classes);
     }
 
+    // Analytics
+
+    // Served from memory, no connection needed
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PriceCurvePoint> getPriceCurve(String source, String destination,
+                                               String airline, String flightClass, Integer bucketSize) {
+        return flightPriceAnalyticsService.getPriceCurve(source, destination, airline, flightClass, bucketSize);
+    }
+
     // Count and Exists
     public Long getFlightCountByAirline(String airline) {
         return flightDataRepository.countByAirline(airline);
@@ -157,7 +267,7 @@ public class FlightDataService {
         return flightDataRepository.countByFlightClass(flightClass);
     }
 
-    public Long getFlightCountByStops(Integer stops) {
+    public Long getFlightCountByStops(String stops) {
         return flightDataRepository.countByStops(stops);
     }
 
@@ -169,16 +279,23 @@ public class FlightDataService {
 
     @Transactional
     public void cleanupExpensiveFlights(Double priceThreshold) {
+        List<FlightPriceAnalyticsService.Sample> previous =
+                flightPriceAnalyticsService.snapshot(flightDataRepository.findByPriceGreaterThanForUpdate(priceThreshold));
         flightDataRepository.deleteByPriceGreaterThan(priceThreshold);
+        flightPriceAnalyticsService.recordChange(previous, List.of());
+        requestCoalescer.invalidateAll();
     }
 
     @Transactional
     public void updateFlightPrices(String airline, Double discountPercentage) {
-        List<FlightData> flights = flightDataRepository.findByAirline(airline);
+        List<FlightData> flights = flightDataRepository.findByAirlineForUpdate(airline);
+        List<FlightPriceAnalyticsService.Sample> previous = flightPriceAnalyticsService.snapshot(flights);
         for (FlightData flight : flights) {
             double newPrice = flight.getPrice() * (1 - discountPercentage / 100);
             flight.setPrice(newPrice);
         }
         flightDataRepository.saveAll(flights);
+        flightPriceAnalyticsService.recordChange(previous, flights);
+        requestCoalescer.invalidateAll();
     }
 }
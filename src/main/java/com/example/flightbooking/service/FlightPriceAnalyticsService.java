@@ -0,0 +1,200 @@
+package com.example.flightbooking.service;
+
+import com.example.flightbooking.dto.FlightPriceView;
+import com.example.flightbooking.dto.PriceCurvePoint;
+import com.example.flightbooking.entity.FlightData;
+import com.example.flightbooking.repository.FlightDataRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps per route / airline / class / days_left price histograms in memory so
+ * the price-curve endpoint never has to scan the table.
+ *
+ * - The index is built once from the database on startup, as a lifecycle step that runs
+ *   before the web server starts accepting requests, so no write can race with the scan.
+ * - After that every write going through FlightDataService updates it
+ *   incrementally (old price removed, new price added) once the transaction commits.
+ */
+@Service
+public class FlightPriceAnalyticsService implements SmartLifecycle {
+
+    @Autowired
+    private FlightDataRepository flightDataRepository;
+
+    @Autowired
+    private PartitionedScanExecutor partitionedScanExecutor;
+
+    // route ("delhi->mumbai") -> segment (airline, class, days_left) -> histogram
+    private volatile Map<String, Map<Segment, PriceHistogram>> index = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    // Phase 0 starts long before the web server lifecycle, which opens the HTTP port
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void rebuild() {
+        // Only the needed columns are read, and each partition is reduced to samples on its worker
+        List<Sample> samples = partitionedScanExecutor.scan((fromId, toId) -> {
+            List<Sample> partition = new ArrayList<>();
+            for (FlightPriceView view : flightDataRepository.findPriceViewsByIdBetween(fromId, toId)) {
+                Sample sample = Sample.of(view.getSourceCity(), view.getDestinationCity(), view.getAirline(),
+                        view.getFlightClass(), view.getDaysLeft(), view.getPrice());
+                if (sample != null) {
+                    partition.add(sample);
+                }
+            }
+            return partition;
+        });
+
+        Map<String, Map<Segment, PriceHistogram>> fresh = new ConcurrentHashMap<>();
+        for (Sample sample : samples) {
+            histogramFor(fresh, sample).add(sample.price());
+        }
+        index = fresh;
+    }
+
+    // Write hooks, called by FlightDataService
+
+    // Captures the current values of the flights, call before they are modified
+    List<Sample> snapshot(Collection<FlightData> flights) {
+        List<Sample> samples = new ArrayList<>();
+        for (FlightData flight : flights) {
+            Sample sample = Sample.of(flight);
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    void recordChange(List<Sample> removed, Collection<FlightData> added) {
+        List<Sample> addedSamples = snapshot(added);
+        // Only apply to the index once the data is actually in the database
+        TransactionCallbacks.afterCommit(() -> {
+            for (Sample sample : removed) {
+                Map<Segment, PriceHistogram> route = index.get(sample.route());
+                PriceHistogram histogram = route == null ? null : route.get(sample.segment());
+                if (histogram != null) {
+                    histogram.remove(sample.price());
+                }
+            }
+            for (Sample sample : addedSamples) {
+                histogramFor(index, sample).add(sample.price());
+            }
+        });
+    }
+
+    // Queries
+
+    public List<PriceCurvePoint> getPriceCurve(String source, String destination,
+                                               String airline, String flightClass, int bucketSize) {
+        Map<Segment, PriceHistogram> route = index.get(routeKey(source, destination));
+        if (route == null) {
+            return List.of();
+        }
+        int width = Math.max(bucketSize, 1);
+
+        // Merge the per-day histograms into (airline, class, bucket) groups
+        Map<Segment, PriceHistogram> buckets = new TreeMap<>(Segment.ORDER);
+        for (Map.Entry<Segment, PriceHistogram> entry : route.entrySet()) {
+            Segment segment = entry.getKey();
+            if (airline != null && !segment.airline().equalsIgnoreCase(airline)) {
+                continue;
+            }
+            if (flightClass != null && !segment.flightClass().equalsIgnoreCase(flightClass)) {
+                continue;
+            }
+            int bucketStart = Math.floorDiv(segment.daysLeft() - 1, width) * width + 1;
+            Segment bucket = new Segment(segment.airline(), segment.flightClass(), bucketStart);
+            entry.getValue().mergeInto(buckets.computeIfAbsent(bucket, k -> new PriceHistogram()));
+        }
+
+        List<PriceCurvePoint> curve = new ArrayList<>();
+        for (Map.Entry<Segment, PriceHistogram> entry : buckets.entrySet()) {
+            Segment bucket = entry.getKey();
+            PriceHistogram histogram = entry.getValue();
+            if (histogram.isEmpty()) {
+                continue;
+            }
+            curve.add(new PriceCurvePoint(
+                    bucket.airline(),
+                    bucket.flightClass(),
+                    bucket.daysLeft(),
+                    bucket.daysLeft() + width - 1,
+                    histogram.getCount(),
+                    histogram.getMin(),
+                    histogram.getAverage(),
+                    histogram.getPercentile(0.50),
+                    histogram.getPercentile(0.90),
+                    histogram.getPercentile(0.99),
+                    histogram.getMax()));
+        }
+        return curve;
+    }
+
+    private static PriceHistogram histogramFor(Map<String, Map<Segment, PriceHistogram>> target, Sample sample) {
+        return target
+                .computeIfAbsent(sample.route(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(sample.segment(), k -> new PriceHistogram());
+    }
+
+    private static String routeKey(String source, String destination) {
+        return source.toLowerCase(Locale.ROOT) + "->" + destination.toLowerCase(Locale.ROOT);
+    }
+
+    record Segment(String airline, String flightClass, int daysLeft) {
+        static final Comparator<Segment> ORDER = Comparator
+                .comparing(Segment::airline)
+                .thenComparing(Segment::flightClass)
+                .thenComparingInt(Segment::daysLeft);
+    }
+
+    // Immutable copy of the fields the index needs from a FlightData row
+    record Sample(String route, Segment segment, double price) {
+        static Sample of(FlightData flight) {
+            return of(flight.getSourceCity(), flight.getDestinationCity(), flight.getAirline(),
+                    flight.getFlightClass(), flight.getDaysLeft(), flight.getPrice());
+        }
+
+        static Sample of(String sourceCity, String destinationCity, String airline,
+                         String flightClass, Integer daysLeft, Double price) {
+            if (sourceCity == null || destinationCity == null || airline == null
+                    || flightClass == null || daysLeft == null || price == null) {
+                return null;
+            }
+            return new Sample(
+                    routeKey(sourceCity, destinationCity),
+                    new Segment(airline, flightClass, daysLeft),
+                    price);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.flightbooking.service;
+
+import com.example.flightbooking.repository.FlightDataRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a full-table query as several Id-range queries in parallel.
+ *
+ * - The [min Id, max Id] range is split into partitions. The first partition is fetched
+ *   on the caller thread, which already holds a connection for the min/max lookup; the
+ *   rest go to parallelism - 1 shared worker threads, each on its own pooled connection.
+ * - Results are concatenated in partition order, so if every range query orders
+ *   by Id the merged list is in Id order as well.
+ * - Small tables (fewer Ids than one partition) are queried directly on the caller thread.
+ *
+ * Every lookup and partition runs in a read-only transaction (joining the caller's, if
+ * any), so with DataSourceRoutingConfig the whole scan reads from the replica pool.
+ *
+ * A scan therefore holds at most parallelism connections. Keep it below the Hikari
+ * maximum-pool-size so scans cannot take every connection away from normal requests.
+ */
+@Component
+public class PartitionedScanExecutor {
+
+    @FunctionalInterface
+    public interface RangeQuery<T> {
+        // fromId and toId are both inclusive
+        List<T> fetch(Long fromId, Long toId);
+    }
+
+    private final FlightDataRepository flightDataRepository;
+    private final int parallelism;
+    private final long minPartitionSize;
+    // null when parallelism is 1, scans then run entirely on the caller thread
+    private final ExecutorService workers;
+    private final TransactionOperations readOnlyTransaction;
+
+    @Autowired
+    public PartitionedScanExecutor(@Value("${flightbooking.scan.parallelism:4}") int parallelism,
+                                   @Value("${flightbooking.scan.min-partition-size:20000}") long minPartitionSize,
+                                   FlightDataRepository flightDataRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this(parallelism, minPartitionSize, flightDataRepository, readOnly(transactionManager));
+    }
+
+    PartitionedScanExecutor(int parallelism, long minPartitionSize,
+                            FlightDataRepository flightDataRepository, TransactionOperations readOnlyTransaction) {
+        this.flightDataRepository = flightDataRepository;
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.parallelism = Math.max(parallelism, 1);
+        this.minPartitionSize = Math.max(minPartitionSize, 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = this.parallelism == 1 ? null : Executors.newFixedThreadPool(this.parallelism - 1, runnable -> {
+            Thread thread = new Thread(runnable, "partitioned-scan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> List<T> scan(RangeQuery<T> query) {
+        Long[] bounds = readOnlyTransaction.execute(status ->
+                new Long[]{flightDataRepository.findMinId(), flightDataRepository.findMaxId()});
+        Long minId = bounds[0];
+        Long maxId = bounds[1];
+        if (minId == null || maxId == null) {
+            return new ArrayList<>();
+        }
+
+        long span = maxId - minId + 1;
+        // Twice the thread count keeps all workers busy when the Ids are unevenly spread
+        long partitions = Math.min((span + minPartitionSize - 1) / minPartitionSize, parallelism * 2L);
+        if (partitions <= 1 || workers == null) {
+            return fetch(query, minId, maxId);
+        }
+
+        long partitionSize = (span + partitions - 1) / partitions;
+        List<Future<List<T>>> futures = new ArrayList<>();
+        for (long from = minId + partitionSize; from <= maxId; from += partitionSize) {
+            long fromId = from;
+            long toId = Math.min(from + partitionSize - 1, maxId);
+            futures.add(workers.submit(() -> fetch(query, fromId, toId)));
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            results.addAll(fetch(query, minId, minId + partitionSize - 1));
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Partitioned scan was interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Partitioned scan failed", e.getCause());
+        } catch (RuntimeException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> List<T> fetch(RangeQuery<T> query, Long fromId, Long toId) {
+        return readOnlyTransaction.execute(status -> query.fetch(fromId, toId));
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.flightbooking.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Log-scaled price histogram used by the price-curve analytics.
+ *
+ * - Each price falls into a bin whose width is 2% of its value, so every
+ *   reported min / max / percentile is within ~1% of the real price.
+ * - Unlike a t-digest, bins are plain counters: a price can be removed again
+ *   when a flight is updated or deleted, and two histograms can be merged.
+ * - count and sum are kept exactly, so the average is exact.
+ *
+ * After-commit callbacks of concurrent transactions can arrive out of order, so a
+ * remove may come before its add. The bin then goes negative until the add arrives
+ * instead of the remove being lost. Only bins with a positive count are reported.
+ */
+class PriceHistogram {
+
+    private static final double GAMMA = 1.02;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_PRICE = 1.0;
+
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long count;
+    private double sum;
+
+    synchronized void add(double price) {
+        adjust(binOf(price), 1L);
+        count++;
+        sum += price;
+    }
+
+    synchronized void remove(double price) {
+        adjust(binOf(price), -1L);
+        count--;
+        sum -= price;
+    }
+
+    synchronized void mergeInto(PriceHistogram target) {
+        for (Map.Entry<Integer, Long> entry : bins.entrySet()) {
+            target.adjust(entry.getKey(), entry.getValue());
+        }
+        target.count += count;
+        target.sum += sum;
+    }
+
+    long getCount() {
+        return Math.max(count, 0);
+    }
+
+    double getAverage() {
+        return count <= 0 ? 0.0 : sum / count;
+    }
+
+    double getMin() {
+        for (Map.Entry<Integer, Long> entry : bins.entrySet()) {
+            if (entry.getValue() > 0) {
+                return valueOf(entry.getKey());
+            }
+        }
+        return 0.0;
+    }
+
+    double getMax() {
+        for (Map.Entry<Integer, Long> entry : bins.descendingMap().entrySet()) {
+            if (entry.getValue() > 0) {
+                return valueOf(entry.getKey());
+            }
+        }
+        return 0.0;
+    }
+
+    // q between 0.0 and 1.0, e.g. 0.9 for the 90th percentile
+    double getPercentile(double q) {
+        long positive = 0;
+        for (long binCount : bins.values()) {
+            positive += Math.max(binCount, 0);
+        }
+        if (positive == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.floor(q * (positive - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : bins.entrySet()) {
+            seen += Math.max(entry.getValue(), 0);
+            if (seen > rank) {
+                return valueOf(entry.getKey());
+            }
+        }
+        return getMax();
+    }
+
+    boolean isEmpty() {
+        return count <= 0;
+    }
+
+    private void adjust(int bin, long delta) {
+        bins.merge(bin, delta, (current, change) -> current + change == 0 ? null : current + change);
+    }
+
+    private static int binOf(double price) {
+        return (int) Math.ceil(Math.log(Math.max(price, MIN_PRICE)) / LOG_GAMMA);
+    }
+
+    // Midpoint of the bin (GAMMA^(i-1), GAMMA^i]
+    private static double valueOf(int bin) {
+        return 2 * Math.pow(GAMMA, bin) / (GAMMA + 1);
+    }
+}
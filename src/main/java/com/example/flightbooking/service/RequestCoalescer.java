@@ -0,0 +1,216 @@
+package com.example.flightbooking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing for hot read queries.
+ *
+ * - Concurrent calls with the same key share one in-flight loader call and its result.
+ * - A finished result is served as-is for fresh-for, then for another stale-for it is
+ *   still served while one background call refreshes it (stale-while-revalidate).
+ * - Only the loader call runs in a (read-only, so replica) transaction. Callers should not
+ *   hold one themselves: then fresh and stale hits and callers waiting for an in-flight
+ *   call do not keep a pooled connection checked out.
+ * - Every write through FlightDataService invalidates all results after commit.
+ *
+ * Finished results are kept in an LRU map bounded by max-cached-rows, the total number of
+ * rows across all cached lists. A result larger than that bound is never cached.
+ *
+ * Results are shared between callers, so they must not be modified.
+ * Outcomes are counted in flightbooking.coalescing.requests (tag outcome =
+ * executed / joined / fresh / stale).
+ */
+@Component
+public class RequestCoalescer {
+
+    private record Result(Object value, long loadedAtNanos, int rows) {
+    }
+
+    private final long freshNanos;
+    private final long staleNanos;
+    private final long maxCachedRows;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Access-ordered, guarded by synchronized (results)
+    private final LinkedHashMap<String, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedRows;
+    // Bumped on every invalidation so loads that started before a write are not stored.
+    // Guarded by synchronized (results), like the results it protects.
+    private long generation;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private final TransactionOperations readOnlyTransaction;
+
+    private final Counter executedCounter;
+    private final Counter joinedCounter;
+    private final Counter freshCounter;
+    private final Counter staleCounter;
+
+    @Autowired
+    public RequestCoalescer(@Value("${flightbooking.coalescing.fresh-for:1s}") Duration freshFor,
+                            @Value("${flightbooking.coalescing.stale-for:5s}") Duration staleFor,
+                            @Value("${flightbooking.coalescing.max-cached-rows:200000}") long maxCachedRows,
+                            MeterRegistry meterRegistry,
+                            PlatformTransactionManager transactionManager) {
+        this(freshFor, staleFor, maxCachedRows, meterRegistry, readOnly(transactionManager));
+    }
+
+    RequestCoalescer(Duration freshFor, Duration staleFor, long maxCachedRows,
+                     MeterRegistry meterRegistry, TransactionOperations readOnlyTransaction) {
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.freshNanos = freshFor.toNanos();
+        this.staleNanos = staleFor.toNanos();
+        this.maxCachedRows = maxCachedRows;
+        this.refresher = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "coalescing-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executedCounter = outcomeCounter(meterRegistry, "executed");
+        this.joinedCounter = outcomeCounter(meterRegistry, "joined");
+        this.freshCounter = outcomeCounter(meterRegistry, "fresh");
+        this.staleCounter = outcomeCounter(meterRegistry, "stale");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        Result result;
+        synchronized (results) {
+            result = results.get(key);
+        }
+        if (result != null) {
+            long age = System.nanoTime() - result.loadedAtNanos();
+            if (age <= freshNanos) {
+                freshCounter.increment();
+                return (T) result.value();
+            }
+            if (age <= freshNanos + staleNanos) {
+                staleCounter.increment();
+                if (refreshing.add(key)) {
+                    refresher.execute(() -> {
+                        try {
+                            load(key, loader);
+                        } catch (RuntimeException ignored) {
+                            // The next caller after the stale window will see the error
+                        } finally {
+                            refreshing.remove(key);
+                        }
+                    });
+                }
+                return (T) result.value();
+            }
+        }
+        return (T) load(key, loader);
+    }
+
+    // For calls that are deliberately not coalesced: runs the loader in the same read-only
+    // transaction a coalesced load would use, without sharing or caching its result
+    public <T> T getUncoalesced(Supplier<T> loader) {
+        return readOnlyTransaction.execute(status -> loader.get());
+    }
+
+    public void invalidateAll() {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (results) {
+                generation++;
+                inFlight.clear();
+                results.clear();
+                cachedRows = 0;
+            }
+        });
+    }
+
+    private Object load(String key, Supplier<?> loader) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            joinedCounter.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        executedCounter.increment();
+        long startGeneration;
+        synchronized (results) {
+            startGeneration = generation;
+        }
+        try {
+            Object value = readOnlyTransaction.execute(status -> loader.get());
+            store(key, value, startGeneration);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private void store(String key, Object value, long startGeneration) {
+        int rows = value instanceof Collection<?> collection ? Math.max(collection.size(), 1) : 1;
+        if (freshNanos + staleNanos <= 0 || rows > maxCachedRows) {
+            return;
+        }
+        synchronized (results) {
+            // Checked under the same lock invalidateAll bumps it with, so no invalidation
+            // can slip in between the check and the put
+            if (generation != startGeneration) {
+                return;
+            }
+            Result previous = results.put(key, new Result(value, System.nanoTime(), rows));
+            cachedRows += rows - (previous == null ? 0 : previous.rows());
+            // Evict least recently used results until the total fits again
+            Iterator<Result> eldest = results.values().iterator();
+            while (cachedRows > maxCachedRows && eldest.hasNext()) {
+                cachedRows -= eldest.next().rows();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("flightbooking.coalescing.requests")
+                .description("Coalesced read requests by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.flightbooking;
+
+import com.example.flightbooking.entity.FlightData;
+import com.example.flightbooking.service.FlightDataService;
+import com.example.flightbooking.service.RequestCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("replica-test")
+@Import(ReadReplicaRoutingTests.ReadThenWriteController.class)
+class ReadReplicaRoutingTests {
+
+	@Autowired
+	private FlightDataService flightDataService;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private DataSource primaryDataSource;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private DataSource replicaDataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private RequestCoalescer requestCoalescer;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	// The context and its databases are shared by all tests in this class
+	@BeforeEach
+	void cleanDatabases() {
+		new JdbcTemplate(primaryDataSource).update("DELETE FROM airlines_flights_data");
+		new JdbcTemplate(replicaDataSource).update("DELETE FROM airlines_flights_data");
+		requestCoalescer.invalidateAll();
+	}
+
+	@Test
+	void writesGoToPrimaryAndReadOnlyReadsGoToReplica() {
+		FlightData flight = new FlightData("Vistara", "UK-995", "Delhi", "Morning", "zero", "Afternoon",
+				"Mumbai", "Economy", 2.25, 1, 5955.0);
+		flight.setId(1L);
+		flightDataService.saveFlight(flight);
+
+		JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+		JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+		assertThat(primary.queryForObject("SELECT COUNT(*) FROM airlines_flights_data", Long.class)).isEqualTo(1L);
+		assertThat(replica.queryForObject("SELECT COUNT(*) FROM airlines_flights_data", Long.class)).isZero();
+
+		// Nothing is replicated between the two databases, so reads only see replica rows
+		assertThat(flightDataService.getFlightById(1L)).isEmpty();
+
+		insert(replica, 2L, "SpiceJet", "SG-8709");
+		assertThat(flightDataService.getFlightById(2L)).isPresent();
+		assertThat(flightDataService.getFlightsByAirline("SpiceJet")).hasSize(1);
+	}
+
+	@Test
+	void writeAfterReadInOneRequestGoesToPrimary() throws Exception {
+		JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+		JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+		insert(replica, 501L, "SpiceJet", "SG-501");
+
+		// With open-in-view the request's EntityManager would keep the replica connection of the read
+		mockMvc.perform(post("/test/read-then-write/501")).andExpect(status().isOk());
+
+		assertThat(primary.queryForList("SELECT Id FROM airlines_flights_data", Long.class)).containsExactly(502L);
+		assertThat(replica.queryForList("SELECT Id FROM airlines_flights_data", Long.class)).containsExactly(501L);
+	}
+
+	@Test
+	void partitionedScanReadsEveryPartitionFromReplica() {
+		JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+		insert(replica, 101L, "SpiceJet", "SG-101");
+		insert(replica, 102L, "SpiceJet", "SG-102");
+		insert(replica, 103L, "SpiceJet", "SG-103");
+
+		// min-partition-size 1: one partition per Id, fetched by the caller and the workers
+		assertThat(flightDataService.getAllFlights()).extracting(FlightData::getId).containsExactly(101L, 102L, 103L);
+	}
+
+	@Test
+	void coalescingRefreshReadsFromReplica() {
+		insert(new JdbcTemplate(replicaDataSource), 201L, "SpiceJet", "SG-201");
+		insert(new JdbcTemplate(primaryDataSource), 301L, "Vistara", "UK-301");
+
+		assertThat(flightDataService.searchBySourceAndDestination("Delhi", "Mumbai"))
+				.extracting(FlightData::getId).containsExactly(201L);
+
+		// fresh-for is 0, so every further call is served stale and triggers a background refresh.
+		// A third load can only start after the first refresh has stored its result.
+		double executedBefore = executedLoads();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (executedLoads() < executedBefore + 2 && System.nanoTime() < deadline) {
+			flightDataService.searchBySourceAndDestination("Delhi", "Mumbai");
+		}
+		assertThat(executedLoads()).isGreaterThanOrEqualTo(executedBefore + 2);
+
+		assertThat(flightDataService.searchBySourceAndDestination("Delhi", "Mumbai"))
+				.extracting(FlightData::getId).containsExactly(201L);
+	}
+
+	@Test
+	void coalescedResultsAreOnlySharedForIdenticalParameters() {
+		insert(new JdbcTemplate(replicaDataSource), 401L, "SpiceJet", "SG-401");
+
+		assertThat(flightDataService.searchBySourceAndDestination("Delhi", "Mumbai")).hasSize(1);
+		// H2 compares case-sensitively, so these are different queries with different results
+		assertThat(flightDataService.searchBySourceAndDestination("delhi", "mumbai")).isEmpty();
+		assertThat(flightDataService.searchBySourceAndDestination(" Delhi", "Mumbai")).isEmpty();
+	}
+
+	private double executedLoads() {
+		return meterRegistry.get("flightbooking.coalescing.requests").tag("outcome", "executed").counter().count();
+	}
+
+	private static void insert(JdbcTemplate database, Long id, String airline, String flight) {
+		database.update("INSERT INTO airlines_flights_data (Id, airline, flight, source_city, departure_time, stops, "
+						+ "arrival_time, destination_city, class, duration, days_left, price) "
+						+ "VALUES (?, ?, ?, 'Delhi', 'Evening', 'zero', 'Night', 'Mumbai', 'Economy', 2.17, 1, 5953.0)",
+				id, airline, flight);
+	}
+
+	// A request that reads a flight and then writes a copy of it under Id + 1 (flight numbers are unique)
+	@RestController
+	static class ReadThenWriteController {
+
+		@Autowired
+		private FlightDataService flightDataService;
+
+		@PostMapping("/test/read-then-write/{id}")
+		Long readThenWrite(@PathVariable Long id) {
+			FlightData flight = flightDataService.getFlightById(id).orElseThrow();
+			FlightData copy = new FlightData(flight.getAirline(), flight.getFlight() + "-B", flight.getSourceCity(),
+					flight.getDepartureTime(), flight.getStops(), flight.getArrivalTime(), flight.getDestinationCity(),
+					flight.getFlightClass(), flight.getDuration(), flight.getDaysLeft(), flight.getPrice());
+			copy.setId(id + 1);
+			return flightDataService.saveFlight(copy).getId();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.example.flightbooking.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class AdmissionControlInterceptorTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AdmissionProperties properties = new AdmissionProperties();
+
+	@Test
+	void requestOverRateLimitGets429WithRetryAfter() throws Exception {
+		properties.getLimits().put(CostClass.SEARCH, limits(1, 1, 10, Duration.ZERO));
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(properties, meterRegistry);
+
+		assertThat(admit(interceptor, "GET", "/flights/search", "10.0.0.1")).isTrue();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request("GET", "/flights/search", "10.0.0.1"), response, null)).isFalse();
+		assertThat(response.getStatus()).isEqualTo(429);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(rejected("search", "rate_limited")).isEqualTo(1);
+		assertThat(rejected("search", "bulkhead_full")).isZero();
+
+		// Other clients have their own bucket
+		assertThat(admit(interceptor, "GET", "/flights/search", "10.0.0.2")).isTrue();
+	}
+
+	@Test
+	void requestWithoutFreePermitGets503AfterMaxQueueWait() throws Exception {
+		properties.getLimits().put(CostClass.HEAVY, limits(100, 100, 1, Duration.ofMillis(50)));
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(properties, meterRegistry);
+
+		// Holds the only permit, afterCompletion is never called
+		assertThat(interceptor.preHandle(request("GET", "/flights", "10.0.0.1"),
+				new MockHttpServletResponse(), null)).isTrue();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		long start = System.nanoTime();
+		assertThat(interceptor.preHandle(request("GET", "/flights", "10.0.0.2"), response, null)).isFalse();
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(rejected("heavy", "bulkhead_full")).isEqualTo(1);
+		assertThat(rejected("heavy", "rate_limited")).isZero();
+		assertThat(inFlight("heavy")).isEqualTo(1);
+	}
+
+	@Test
+	void permitIsReleasedWhenHandlerThrows() throws Exception {
+		properties.getLimits().put(CostClass.HEAVY, limits(100, 100, 1, Duration.ZERO));
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(properties, meterRegistry);
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+				.addInterceptors(interceptor)
+				.build();
+
+		assertThatThrownBy(() -> mockMvc.perform(get("/flights")))
+				.hasRootCauseInstanceOf(IllegalStateException.class);
+
+		assertThat(inFlight("heavy")).isZero();
+		assertThat(admit(interceptor, "GET", "/flights", "10.0.0.1")).isTrue();
+	}
+
+	@Test
+	void disabledAdmissionLetsEverythingThrough() throws Exception {
+		properties.setEnabled(false);
+		properties.getLimits().put(CostClass.HEAVY, limits(1, 1, 1, Duration.ZERO));
+		AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(properties, meterRegistry);
+
+		for (int i = 0; i < 5; i++) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			assertThat(interceptor.preHandle(request("GET", "/flights", "10.0.0.1"), response, null)).isTrue();
+			assertThat(response.getStatus()).isEqualTo(200);
+		}
+		assertThat(rejected("heavy", "rate_limited")).isZero();
+		assertThat(rejected("heavy", "bulkhead_full")).isZero();
+		assertThat(inFlight("heavy")).isZero();
+	}
+
+	// Runs one request through preHandle and afterCompletion, returns whether it was admitted
+	private static boolean admit(AdmissionControlInterceptor interceptor, String method, String path,
+								 String remoteAddr) throws Exception {
+		MockHttpServletRequest request = request(method, path, remoteAddr);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		boolean admitted = interceptor.preHandle(request, response, null);
+		interceptor.afterCompletion(request, response, null, null);
+		return admitted;
+	}
+
+	private static MockHttpServletRequest request(String method, String path, String remoteAddr) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setRemoteAddr(remoteAddr);
+		return request;
+	}
+
+	private static AdmissionProperties.Limits limits(double requestsPerSecond, int burst, int maxConcurrent,
+													 Duration maxQueueWait) {
+		AdmissionProperties.Limits limits = new AdmissionProperties.Limits();
+		limits.setRequestsPerSecond(requestsPerSecond);
+		limits.setBurst(burst);
+		limits.setMaxConcurrent(maxConcurrent);
+		limits.setMaxQueueWait(maxQueueWait);
+		return limits;
+	}
+
+	private double rejected(String costClass, String reason) {
+		return meterRegistry.get("flightbooking.admission.rejected")
+				.tag("class", costClass).tag("reason", reason).counter().count();
+	}
+
+	private double inFlight(String costClass) {
+		return meterRegistry.get("flightbooking.admission.in.flight").tag("class", costClass).gauge().value();
+	}
+
+	@RestController
+	static class FailingController {
+
+		@GetMapping("/flights")
+		String getAllFlights() {
+			throw new IllegalStateException("database unavailable");
+		}
+	}
+}
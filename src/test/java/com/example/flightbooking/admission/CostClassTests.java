@@ -0,0 +1,43 @@
+package com.example.flightbooking.admission;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostClassTests {
+
+	@ParameterizedTest
+	@CsvSource({
+			"GET,    /flights,                                 HEAVY",
+			"GET,    /flights/class/Economy,                   HEAVY",
+			"GET,    /flights/price/under/5000,                HEAVY",
+			"GET,    /flights/duration/under/3.5,              HEAVY",
+			"GET,    /flights/price-duration,                  HEAVY",
+			"DELETE, /flights/cleanup/expensive/50000,         BULK_WRITE",
+			"PUT,    /flights/update-prices/Vistara,           BULK_WRITE",
+			"POST,   /flights/flights/bulk,                    BULK_WRITE",
+			"GET,    /flights/search,                          SEARCH",
+			"GET,    /flights/search/advance,                  SEARCH",
+			"GET,    /flights/route,                           SEARCH",
+			"GET,    /flights/deals,                           SEARCH",
+			"GET,    /flights/id/42,                           SEARCH",
+			"GET,    /flights/airlines,                        STANDARD",
+			"GET,    /flights/analytics/price-curve,           STANDARD",
+			"POST,   /flights/flights,                         STANDARD",
+			"DELETE, /flights/flights/42,                      STANDARD"
+	})
+	void classifiesEveryRule(String method, String path, CostClass expected) {
+		assertThat(CostClass.classify(method, path)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"POST,   /flights",
+			"DELETE, /flights/class/Economy",
+			"POST,   /flights/search"
+	})
+	void ruleOnlyMatchesItsMethod(String method, String path) {
+		assertThat(CostClass.classify(method, path)).isEqualTo(CostClass.STANDARD);
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.flightbooking.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTests {
+
+	private final AtomicLong now = new AtomicLong();
+
+	@Test
+	void burstIsAdmittedThenCallerMustWait() {
+		TokenBucket bucket = new TokenBucket(2, 1.0, now::get);
+
+		assertThat(bucket.tryConsume()).isZero();
+		assertThat(bucket.tryConsume()).isZero();
+		assertThat(bucket.tryConsume()).isCloseTo(TimeUnit.SECONDS.toNanos(1), within(1L));
+	}
+
+	@Test
+	void waitShrinksAsTokensRefill() {
+		TokenBucket bucket = new TokenBucket(1, 2.0, now::get);
+		bucket.tryConsume();
+
+		assertThat(bucket.tryConsume()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(500), within(1L));
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+		assertThat(bucket.tryConsume()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(300), within(1L));
+
+		// A little past the wait, so floating-point rounding cannot leave the token just short
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(301));
+		assertThat(bucket.tryConsume()).isZero();
+	}
+
+	@Test
+	void refillIsCappedAtCapacity() {
+		TokenBucket bucket = new TokenBucket(2, 1.0, now::get);
+		bucket.tryConsume();
+		bucket.tryConsume();
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+		assertThat(bucket.tryConsume()).isZero();
+		assertThat(bucket.tryConsume()).isZero();
+		assertThat(bucket.tryConsume()).isPositive();
+	}
+}
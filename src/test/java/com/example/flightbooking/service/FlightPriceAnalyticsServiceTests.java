@@ -0,0 +1,84 @@
+package com.example.flightbooking.service;
+
+import com.example.flightbooking.dto.PriceCurvePoint;
+import com.example.flightbooking.entity.FlightData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class FlightPriceAnalyticsServiceTests {
+
+	private final FlightPriceAnalyticsService analytics = new FlightPriceAnalyticsService();
+
+	@Test
+	void bucketsAreAlignedToBucketSize() {
+		analytics.recordChange(List.of(), List.of(
+				flight(1L, "Vistara", 1, 9000.0),
+				flight(2L, "Vistara", 7, 7000.0),
+				flight(3L, "Vistara", 8, 6000.0),
+				flight(4L, "Vistara", 14, 5000.0),
+				flight(5L, "Vistara", 15, 4000.0)));
+
+		List<PriceCurvePoint> curve = analytics.getPriceCurve("Delhi", "Mumbai", null, null, 7);
+
+		assertThat(curve).extracting(PriceCurvePoint::minDaysLeft).containsExactly(1, 8, 15);
+		assertThat(curve).extracting(PriceCurvePoint::maxDaysLeft).containsExactly(7, 14, 21);
+		assertThat(curve).extracting(PriceCurvePoint::count).containsExactly(2L, 2L, 1L);
+		assertThat(curve.get(0).avgPrice()).isEqualTo(8000.0);
+		assertThat(curve.get(0).maxPrice()).isCloseTo(9000.0, withinPercentage(1));
+	}
+
+	@Test
+	void bucketSizeOfOneKeepsEveryDay() {
+		analytics.recordChange(List.of(), List.of(
+				flight(1L, "Vistara", 1, 9000.0),
+				flight(2L, "Vistara", 2, 8000.0)));
+
+		List<PriceCurvePoint> curve = analytics.getPriceCurve("Delhi", "Mumbai", null, null, 1);
+
+		assertThat(curve).extracting(PriceCurvePoint::minDaysLeft).containsExactly(1, 2);
+		assertThat(curve).extracting(PriceCurvePoint::maxDaysLeft).containsExactly(1, 2);
+	}
+
+	@Test
+	void filtersAndRouteAreCaseInsensitive() {
+		analytics.recordChange(List.of(), List.of(
+				flight(1L, "Vistara", 3, 9000.0),
+				flight(2L, "SpiceJet", 3, 5000.0)));
+
+		List<PriceCurvePoint> curve = analytics.getPriceCurve("delhi", "MUMBAI", "spicejet", "economy", 7);
+
+		assertThat(curve).singleElement().satisfies(point -> {
+			assertThat(point.airline()).isEqualTo("SpiceJet");
+			assertThat(point.count()).isEqualTo(1);
+		});
+		assertThat(analytics.getPriceCurve("Delhi", "Chennai", null, null, 7)).isEmpty();
+	}
+
+	@Test
+	void updateMovesPriceToNewBucket() {
+		FlightData flight = flight(1L, "Vistara", 3, 9000.0);
+		analytics.recordChange(List.of(), List.of(flight));
+
+		List<FlightPriceAnalyticsService.Sample> previous = analytics.snapshot(List.of(flight));
+		flight.setDaysLeft(10);
+		flight.setPrice(4000.0);
+		analytics.recordChange(previous, List.of(flight));
+
+		List<PriceCurvePoint> curve = analytics.getPriceCurve("Delhi", "Mumbai", null, null, 7);
+		assertThat(curve).singleElement().satisfies(point -> {
+			assertThat(point.minDaysLeft()).isEqualTo(8);
+			assertThat(point.avgPrice()).isEqualTo(4000.0);
+		});
+	}
+
+	private static FlightData flight(Long id, String airline, int daysLeft, double price) {
+		FlightData flight = new FlightData(airline, airline + "-" + id, "Delhi", "Morning", "zero", "Afternoon",
+				"Mumbai", "Economy", 2.0, daysLeft, price);
+		flight.setId(id);
+		return flight;
+	}
+}
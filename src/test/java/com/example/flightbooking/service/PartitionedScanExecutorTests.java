@@ -0,0 +1,173 @@
+package com.example.flightbooking.service;
+
+import com.example.flightbooking.repository.FlightDataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PartitionedScanExecutorTests {
+
+	private record Range(long fromId, long toId, String thread) {
+	}
+
+	private final FlightDataRepository repository = mock(FlightDataRepository.class);
+	private final List<Range> fetched = Collections.synchronizedList(new ArrayList<>());
+	private PartitionedScanExecutor executor;
+
+	@AfterEach
+	void shutdownExecutor() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void emptyTableReturnsEmptyList() {
+		executor = executor(4, 1, null, null);
+
+		assertThat(executor.scan(this::recordRange)).isEmpty();
+		assertThat(fetched).isEmpty();
+	}
+
+	@Test
+	void unevenSpanIsCoveredWithoutGapsOrOverlaps() {
+		// 10 Ids, at most 2 * 2 partitions: three of 3 Ids and one of 1
+		executor = executor(2, 1, 1L, 10L);
+
+		assertThat(executor.scan(this::recordRange)).containsExactly(1L, 4L, 7L, 10L);
+		assertThat(sortedRanges()).extracting(r -> r.fromId() + "-" + r.toId())
+				.containsExactly("1-3", "4-6", "7-9", "10-10");
+		assertThat(sortedRanges().get(0).thread()).isEqualTo(Thread.currentThread().getName());
+	}
+
+	@Test
+	void spanBelowMinPartitionSizeIsOneQueryOnCallerThread() {
+		executor = executor(4, 100, 1L, 10L);
+
+		executor.scan(this::recordRange);
+
+		assertThat(fetched).containsExactly(new Range(1, 10, Thread.currentThread().getName()));
+	}
+
+	@Test
+	void parallelismOneIsOneQueryOnCallerThread() {
+		executor = executor(1, 1, 1L, 10L);
+
+		executor.scan(this::recordRange);
+
+		assertThat(fetched).containsExactly(new Range(1, 10, Thread.currentThread().getName()));
+	}
+
+	@Test
+	void idGapsOnlyLeaveSomePartitionsEmpty() {
+		NavigableSet<Long> ids = new TreeSet<>(List.of(1L, 2L, 500L, 999L, 1000L));
+		executor = executor(4, 1, ids.first(), ids.last());
+
+		List<Long> result = executor.scan((fromId, toId) -> new ArrayList<>(ids.subSet(fromId, true, toId, true)));
+
+		assertThat(result).containsExactly(1L, 2L, 500L, 999L, 1000L);
+	}
+
+	@Test
+	void resultsKeepPartitionOrderWhenLaterPartitionsFinishFirst() {
+		executor = executor(4, 1, 1L, 8L);
+
+		List<Long> result = executor.scan((fromId, toId) -> {
+			// The lower the Ids, the longer the partition takes
+			sleep(10 * (8 - fromId));
+			List<Long> partition = new ArrayList<>();
+			for (long id = fromId; id <= toId; id++) {
+				partition.add(id);
+			}
+			return partition;
+		});
+
+		assertThat(result).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+	}
+
+	@Test
+	void workerFailureIsRethrownAndOtherPartitionsAreCancelled() {
+		// 6 partitions of one Id each, two worker threads
+		executor = executor(3, 1, 1L, 6L);
+		IllegalStateException failure = new IllegalStateException("partition 2 failed");
+		CountDownLatch never = new CountDownLatch(1);
+		AtomicInteger blocked = new AtomicInteger();
+		AtomicInteger interrupted = new AtomicInteger();
+
+		assertThatThrownBy(() -> executor.scan((fromId, toId) -> {
+			if (fromId == 1) {
+				return List.of(fromId);
+			}
+			if (fromId == 2) {
+				// Fail only once the other worker is busy with partition 3
+				await(() -> blocked.get() == 1);
+				throw failure;
+			}
+			blocked.incrementAndGet();
+			try {
+				never.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted.incrementAndGet();
+			}
+			return List.of(fromId);
+		})).isSameAs(failure);
+
+		// Running partitions are interrupted, queued ones never start
+		await(() -> interrupted.get() == blocked.get());
+		assertThat(blocked.get()).isBetween(1, 2);
+	}
+
+	private PartitionedScanExecutor executor(int parallelism, long minPartitionSize, Long minId, Long maxId) {
+		when(repository.findMinId()).thenReturn(minId);
+		when(repository.findMaxId()).thenReturn(maxId);
+		return new PartitionedScanExecutor(parallelism, minPartitionSize, repository,
+				TransactionOperations.withoutTransaction());
+	}
+
+	// Returns the first Id of the range, so results show which partitions were fetched and in what order
+	private List<Long> recordRange(Long fromId, Long toId) {
+		fetched.add(new Range(fromId, toId, Thread.currentThread().getName()));
+		return List.of(fromId);
+	}
+
+	private List<Range> sortedRanges() {
+		synchronized (fetched) {
+			return fetched.stream().sorted(Comparator.comparingLong(Range::fromId)).toList();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError(e);
+		}
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("Condition not met within 5 seconds");
+			}
+			sleep(5);
+		}
+	}
+}
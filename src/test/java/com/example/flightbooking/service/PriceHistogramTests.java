@@ -0,0 +1,73 @@
+package com.example.flightbooking.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class PriceHistogramTests {
+
+	@Test
+	void percentilesAreWithinOnePercent() {
+		PriceHistogram histogram = new PriceHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.add(i * 100.0);
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(100);
+		assertThat(histogram.getAverage()).isEqualTo(5050.0);
+		assertThat(histogram.getMin()).isCloseTo(100.0, withinPercentage(1));
+		assertThat(histogram.getPercentile(0.50)).isCloseTo(5000.0, withinPercentage(1));
+		assertThat(histogram.getPercentile(0.90)).isCloseTo(9000.0, withinPercentage(1));
+		assertThat(histogram.getMax()).isCloseTo(10000.0, withinPercentage(1));
+	}
+
+	@Test
+	void removeUndoesAdd() {
+		PriceHistogram histogram = new PriceHistogram();
+		histogram.add(1000.0);
+		histogram.add(2000.0);
+		histogram.add(3000.0);
+
+		histogram.remove(3000.0);
+
+		assertThat(histogram.getCount()).isEqualTo(2);
+		assertThat(histogram.getAverage()).isEqualTo(1500.0);
+		assertThat(histogram.getMax()).isCloseTo(2000.0, withinPercentage(1));
+	}
+
+	@Test
+	void removeBeforeAddCancelsOut() {
+		PriceHistogram histogram = new PriceHistogram();
+		histogram.remove(5000.0);
+		assertThat(histogram.isEmpty()).isTrue();
+
+		histogram.add(5000.0);
+		assertThat(histogram.isEmpty()).isTrue();
+		assertThat(histogram.getCount()).isZero();
+
+		histogram.add(7000.0);
+		assertThat(histogram.getCount()).isEqualTo(1);
+		assertThat(histogram.getMin()).isCloseTo(7000.0, withinPercentage(1));
+		assertThat(histogram.getPercentile(0.50)).isCloseTo(7000.0, withinPercentage(1));
+	}
+
+	@Test
+	void mergeCombinesCountsAndBins() {
+		PriceHistogram first = new PriceHistogram();
+		first.add(1000.0);
+		first.add(2000.0);
+		PriceHistogram second = new PriceHistogram();
+		second.add(3000.0);
+
+		PriceHistogram merged = new PriceHistogram();
+		first.mergeInto(merged);
+		second.mergeInto(merged);
+
+		assertThat(merged.getCount()).isEqualTo(3);
+		assertThat(merged.getAverage()).isEqualTo(2000.0);
+		assertThat(merged.getMin()).isCloseTo(1000.0, withinPercentage(1));
+		assertThat(merged.getMax()).isCloseTo(3000.0, withinPercentage(1));
+		assertThat(first.getCount()).isEqualTo(2);
+	}
+}
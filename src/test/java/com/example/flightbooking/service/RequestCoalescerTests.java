@@ -0,0 +1,211 @@
+package com.example.flightbooking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescerTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	// Own threads, the common pool may have a single thread that the blocked leader would occupy
+	private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+	@AfterEach
+	void shutdownCallers() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallsJoinTheInFlightCall() throws Exception {
+		RequestCoalescer coalescer = coalescer(Duration.ZERO, Duration.ZERO, 100);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<String> slowLoader = () -> {
+			calls.incrementAndGet();
+			await(() -> release.getCount() == 0);
+			return "result";
+		};
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.get("key", slowLoader), callers);
+		await(() -> calls.get() == 1);
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.get("key", slowLoader), callers);
+		await(() -> outcome("joined") == 1);
+		release.countDown();
+
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+		assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+		assertThat(calls).hasValue(1);
+		assertThat(outcome("executed")).isEqualTo(1);
+	}
+
+	@Test
+	void freshResultIsReused() {
+		RequestCoalescer coalescer = coalescer(Duration.ofHours(1), Duration.ZERO, 100);
+		AtomicInteger calls = new AtomicInteger();
+
+		coalescer.get("key", () -> "v" + calls.incrementAndGet());
+		String second = coalescer.get("key", () -> "v" + calls.incrementAndGet());
+
+		assertThat(second).isEqualTo("v1");
+		assertThat(calls).hasValue(1);
+		assertThat(outcome("fresh")).isEqualTo(1);
+	}
+
+	@Test
+	void staleResultIsServedWhileRefreshing() throws Exception {
+		RequestCoalescer coalescer = coalescer(Duration.ofNanos(1), Duration.ofHours(1), 100);
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<String> loader = () -> "v" + calls.incrementAndGet();
+
+		assertThat(coalescer.get("key", loader)).isEqualTo("v1");
+		Thread.sleep(1);
+
+		assertThat(coalescer.get("key", loader)).isEqualTo("v1");
+		assertThat(outcome("stale")).isEqualTo(1);
+		await(() -> !coalescer.get("key", loader).equals("v1"));
+		assertThat(calls.get()).isGreaterThanOrEqualTo(2);
+	}
+
+	@Test
+	void onlyLoaderCallsRunInTransaction() {
+		AtomicInteger transactions = new AtomicInteger();
+		ThreadLocal<Boolean> inTransaction = ThreadLocal.withInitial(() -> false);
+		TransactionOperations countingTransaction = new TransactionOperations() {
+			@Override
+			public <T> T execute(TransactionCallback<T> action) {
+				transactions.incrementAndGet();
+				inTransaction.set(true);
+				try {
+					return action.doInTransaction(new SimpleTransactionStatus());
+				} finally {
+					inTransaction.set(false);
+				}
+			}
+		};
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofHours(1), Duration.ZERO, 100, meterRegistry,
+				countingTransaction);
+
+		assertThat(coalescer.get("key", inTransaction::get)).isTrue();
+		// Fresh hit, served without a transaction
+		assertThat(coalescer.get("key", inTransaction::get)).isTrue();
+		assertThat(transactions).hasValue(1);
+
+		assertThat(coalescer.getUncoalesced(inTransaction::get)).isTrue();
+		assertThat(transactions).hasValue(2);
+	}
+
+	@Test
+	void loadStartedBeforeInvalidationIsNotCached() throws Exception {
+		RequestCoalescer coalescer = coalescer(Duration.ofHours(1), Duration.ZERO, 100);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<String> loader = () -> {
+			int call = calls.incrementAndGet();
+			if (call == 1) {
+				await(() -> release.getCount() == 0);
+			}
+			return "v" + call;
+		};
+
+		CompletableFuture<String> beforeWrite = CompletableFuture.supplyAsync(() -> coalescer.get("key", loader), callers);
+		await(() -> calls.get() == 1);
+		coalescer.invalidateAll();
+		release.countDown();
+		assertThat(beforeWrite.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+
+		assertThat(coalescer.get("key", loader)).isEqualTo("v2");
+		assertThat(coalescer.get("key", loader)).isEqualTo("v2");
+	}
+
+	@Test
+	void invalidationBetweenLoadAndStoreIsNotLost() {
+		RequestCoalescer coalescer = coalescer(Duration.ofHours(1), Duration.ZERO, 100);
+		// store() sizes the result after the loader has returned, so invalidating from size()
+		// lands exactly between the loader call and the put
+		List<String> invalidatedWhileStoring = new AbstractList<>() {
+			private boolean invalidated;
+
+			@Override
+			public String get(int index) {
+				return "v1";
+			}
+
+			@Override
+			public int size() {
+				if (!invalidated) {
+					invalidated = true;
+					coalescer.invalidateAll();
+				}
+				return 1;
+			}
+		};
+
+		assertThat(coalescer.get("key", () -> invalidatedWhileStoring)).isSameAs(invalidatedWhileStoring);
+
+		assertThat(coalescer.get("key", () -> List.of("v2"))).containsExactly("v2");
+		assertThat(outcome("executed")).isEqualTo(2);
+		assertThat(outcome("fresh")).isZero();
+	}
+
+	@Test
+	void leastRecentlyUsedResultsAreEvictedByRowCount() {
+		RequestCoalescer coalescer = coalescer(Duration.ofHours(1), Duration.ZERO, 3);
+		AtomicInteger calls = new AtomicInteger();
+
+		coalescer.get("a", () -> List.of(calls.incrementAndGet(), 0));
+		coalescer.get("b", () -> List.of(calls.incrementAndGet(), 0));
+		assertThat(calls).hasValue(2);
+
+		coalescer.get("b", () -> List.of(calls.incrementAndGet(), 0));
+		assertThat(calls).hasValue(2);
+		coalescer.get("a", () -> List.of(calls.incrementAndGet(), 0));
+		assertThat(calls).hasValue(3);
+
+		// Larger than the whole cache, never stored
+		coalescer.get("big", () -> List.of(calls.incrementAndGet(), 0, 0, 0));
+		coalescer.get("big", () -> List.of(calls.incrementAndGet(), 0, 0, 0));
+		assertThat(calls).hasValue(5);
+	}
+
+	private RequestCoalescer coalescer(Duration freshFor, Duration staleFor, long maxCachedRows) {
+		return new RequestCoalescer(freshFor, staleFor, maxCachedRows, meterRegistry,
+				TransactionOperations.withoutTransaction());
+	}
+
+	private double outcome(String outcome) {
+		return meterRegistry.get("flightbooking.coalescing.requests").tag("outcome", outcome).counter().count();
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("Condition not met within 5 seconds");
+			}
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError(e);
+			}
+		}
+	}
+}
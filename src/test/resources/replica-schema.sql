@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS airlines_flights_data (
+    Id BIGINT PRIMARY KEY,
+    airline VARCHAR(255),
+    flight VARCHAR(255) UNIQUE,
+    source_city VARCHAR(255),
+    departure_time VARCHAR(255),
+    stops VARCHAR(255),
+    arrival_time VARCHAR(255),
+    destination_city VARCHAR(255),
+    class VARCHAR(255),
+    duration DOUBLE,
+    days_left INT,
+    price DOUBLE
+);